@@ -0,0 +1,181 @@
+package com.google.ar.sceneform.samples.augmentedimage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Cloud Translation {@code translate/v2} endpoint. Every {@code q} parameter,
+ * from the query string or a form-encoded body, is echoed back prefixed with the target language,
+ * after an optional injected delay. A configurable fraction of requests fails with HTTP 503
+ * instead, and request URIs longer than the real service accepts fail with HTTP 414.
+ *
+ * <p>Run with {@code -Dsun.net.httpserver.nodelay=true}, as the Gradle test tasks do. HttpServer
+ * writes headers and body separately, and with Nagle on every response picks up a ~40ms delayed
+ * ACK.
+ */
+class MockTranslateServer implements AutoCloseable {
+
+  static final String PATH = "/language/translate/v2";
+  /** Approximate URL length limit of the real endpoint. */
+  static final int MAX_URI_LENGTH = 2048;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final long latencyMs;
+  private final long jitterMs;
+  private final double errorRate;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong injectedErrors = new AtomicLong();
+  private final AtomicLong requestBytes = new AtomicLong();
+  private final AtomicLong responseBytes = new AtomicLong();
+
+  MockTranslateServer(int threads, long latencyMs, long jitterMs, double errorRate)
+      throws IOException {
+    this.latencyMs = latencyMs;
+    this.jitterMs = jitterMs;
+    this.errorRate = errorRate;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(PATH, this::handle);
+    executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  String endpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+  }
+
+  /** Requests received, including ones answered with an error. */
+  long requests() {
+    return requests.get();
+  }
+
+  long injectedErrors() {
+    return injectedErrors.get();
+  }
+
+  /** Bytes of request URI and body received, excluding headers. */
+  long requestBytes() {
+    return requestBytes.get();
+  }
+
+  /** Bytes of response body sent, excluding headers. */
+  long responseBytes() {
+    return responseBytes.get();
+  }
+
+  void resetCounters() {
+    requests.set(0);
+    injectedErrors.set(0);
+    requestBytes.set(0);
+    responseBytes.set(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requests.incrementAndGet();
+      String uri = exchange.getRequestURI().toString();
+      byte[] form = readFully(exchange.getRequestBody());
+      requestBytes.addAndGet(uri.length() + form.length);
+
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+      if (delay > 0) {
+        TimeUnit.MILLISECONDS.sleep(delay);
+      }
+
+      if (uri.length() > MAX_URI_LENGTH) {
+        send(exchange, 414, "{\"error\":{\"code\":414,\"message\":\"URI too long\"}}");
+        return;
+      }
+      if (random.nextDouble() < errorRate) {
+        injectedErrors.incrementAndGet();
+        send(exchange, 503, "{\"error\":{\"code\":503,\"message\":\"injected\"}}");
+        return;
+      }
+
+      Map<String, List<String>> params = new HashMap<>();
+      parseForm(exchange.getRequestURI().getRawQuery(), params);
+      parseForm(new String(form, StandardCharsets.US_ASCII), params);
+      List<String> texts = params.getOrDefault("q", Collections.emptyList());
+      String target = params.getOrDefault("target", Collections.singletonList("")).get(0);
+
+      JSONArray translations = new JSONArray();
+      for (String text : texts) {
+        translations.put(new JSONObject()
+            .put("translatedText", "[" + target + "] " + text)
+            .put("detectedSourceLanguage", "en"));
+      }
+      JSONObject body = new JSONObject()
+          .put("data", new JSONObject().put("translations", translations));
+      send(exchange, 200, body.toString());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.sendResponseHeaders(500, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static void parseForm(String params, Map<String, List<String>> into)
+      throws IOException {
+    if (params == null || params.isEmpty()) {
+      return;
+    }
+    for (String pair : params.split("&")) {
+      int eq = pair.indexOf('=');
+      String name = eq < 0 ? pair : pair.substring(0, eq);
+      String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+      into.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  private void send(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+    responseBytes.addAndGet(bytes.length);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,365 @@
+package com.google.ar.sceneform.samples.augmentedimage;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.SocketFactory;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Load generator for the translation path used by {@code AugmentedImageActivity.translateStuff}.
+ * Drives {@link Translator} from a pool of worker threads against a {@link MockTranslateServer},
+ * switching the target language on every request, and prints throughput, latency percentiles,
+ * payload bytes and client allocation rate. Every response is compared with what the mock
+ * echoes; missing, reordered or wrong translations count as failures.
+ *
+ * <p>Run with {@code ./gradlew :app:translationLoadTest -PloadArgs="--concurrency=16 ..."}.
+ * Options (all {@code --name=value}):
+ *
+ * <ul>
+ *   <li>{@code requests} measured requests in total (default 2000)
+ *   <li>{@code warmup} unmeasured requests run first (default 200)
+ *   <li>{@code concurrency} worker threads (default 8)
+ *   <li>{@code languages} comma separated target languages (default {@link Utils#languageCodes})
+ *   <li>{@code catalog-sizes} comma separated strings-per-request mix, picked uniformly (default
+ *       the size of {@link Utils#descriptions})
+ *   <li>{@code latency-ms}, {@code jitter-ms} injected server delay (default 0, 0)
+ *   <li>{@code error-rate} fraction of requests answered with HTTP 503 (default 0)
+ *   <li>{@code max-p99-ms}, {@code max-error-rate}, {@code min-throughput} optional gates; the
+ *       process exits with status 1 if any is violated
+ * </ul>
+ */
+public class TranslationLoadHarness {
+
+  private static final int BASELINE_REQUESTS = 100;
+  private static final List<String> OPTIONS = Arrays.asList("requests", "warmup", "concurrency",
+      "languages", "catalog-sizes", "latency-ms", "jitter-ms", "error-rate", "max-p99-ms",
+      "max-error-rate", "min-throughput");
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseOptions(args);
+    int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+    int warmup = Integer.parseInt(options.getOrDefault("warmup", "200"));
+    int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+    String[] languages = options.containsKey("languages")
+        ? options.get("languages").split(",")
+        : Utils.languageCodes.toArray(new String[0]);
+    int[] catalogSizes = options.containsKey("catalog-sizes")
+        ? Arrays.stream(options.get("catalog-sizes").split(",")).mapToInt(Integer::parseInt).toArray()
+        : new int[] {Utils.descriptions.length};
+    long latencyMs = Long.parseLong(options.getOrDefault("latency-ms", "0"));
+    long jitterMs = Long.parseLong(options.getOrDefault("jitter-ms", "0"));
+    double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+    Double maxP99Ms = gate(options, "max-p99-ms");
+    Double maxErrorRate = gate(options, "max-error-rate");
+    Double minThroughput = gate(options, "min-throughput");
+
+    require(requests > 0, "requests must be positive");
+    require(warmup >= 0, "warmup must not be negative");
+    require(concurrency > 0, "concurrency must be positive");
+    require(Arrays.stream(languages).noneMatch(String::isEmpty), "languages must not be empty");
+    require(Arrays.stream(catalogSizes).allMatch(size -> size >= 1),
+        "catalog sizes must be at least 1");
+    require(latencyMs >= 0 && jitterMs >= 0, "latency and jitter must not be negative");
+    require(errorRate >= 0 && errorRate <= 1, "error-rate must be between 0 and 1");
+
+    if (!Boolean.getBoolean("sun.net.httpserver.nodelay")) {
+      System.err.println("WARNING: sun.net.httpserver.nodelay is not set; every response from the"
+          + " mock will include a ~40ms delayed ACK.");
+    }
+
+    String[][] catalogs = new String[catalogSizes.length][];
+    for (int i = 0; i < catalogSizes.length; i++) {
+      catalogs[i] = catalog(catalogSizes[i]);
+    }
+
+    // Round trips against a mock with nothing injected, one request at a time, for every catalog
+    // size. Per-request overhead from the mock or the loopback stack, including costs that grow
+    // with payload size, shows up here rather than hiding in the results.
+    Result[] baselines = new Result[catalogs.length];
+    try (MockTranslateServer server = new MockTranslateServer(1, 0, 0, 0)) {
+      Translator translator = new Translator(newClient(), server.endpoint(), "load-test");
+      for (int i = 0; i < catalogs.length; i++) {
+        String[][] catalog = {catalogs[i]};
+        run(translator, BASELINE_REQUESTS, 1, languages, catalog);
+        baselines[i] = run(translator, BASELINE_REQUESTS, 1, languages, catalog);
+      }
+    }
+
+    try (MockTranslateServer server =
+        new MockTranslateServer(concurrency, latencyMs, jitterMs, errorRate)) {
+      // One client shared by every worker, as the activity shares one Translator.
+      Translator translator = new Translator(newClient(), server.endpoint(), "load-test");
+
+      run(translator, warmup, concurrency, languages, catalogs);
+      server.resetCounters();
+      Result result = run(translator, requests, concurrency, languages, catalogs);
+
+      double seconds = result.elapsedNanos / 1e9;
+      double throughput = result.latencies.length / seconds;
+      double observedErrorRate = (double) result.failures / result.latencies.length;
+      double p99 = percentileMs(result.latencies, 99);
+
+      System.out.println("Translation load test");
+      System.out.printf(Locale.ROOT, "  config       concurrency=%d languages=%s catalog-sizes=%s"
+              + " latency=%d+%dms error-rate=%.3f%n",
+          concurrency, String.join(",", languages), Arrays.toString(catalogSizes),
+          latencyMs, jitterMs, errorRate);
+      System.out.printf(Locale.ROOT, "  requests     %d in %.2fs, %d seen by server (%d failed:"
+              + " %d injected, %d wrong translations)%n",
+          result.latencies.length, seconds, server.requests(), result.failures,
+          server.injectedErrors(), result.mismatches);
+      for (int i = 0; i < catalogs.length; i++) {
+        System.out.printf(Locale.ROOT, "  baseline ms  catalog=%d p50=%.2f p99=%.2f (no injected"
+                + " latency, concurrency=1)%n",
+            catalogSizes[i], percentileMs(baselines[i].latencies, 50),
+            percentileMs(baselines[i].latencies, 99));
+      }
+      System.out.printf(Locale.ROOT, "  throughput   %.1f req/s%n", throughput);
+      System.out.printf(Locale.ROOT, "  latency ms   p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+          percentileMs(result.latencies, 50), percentileMs(result.latencies, 90), p99,
+          percentileMs(result.latencies, 99.9), percentileMs(result.latencies, 100));
+      System.out.printf(Locale.ROOT, "  payload      sent=%d B received=%d B (%.1f KiB/s; URI and"
+              + " body only, headers excluded)%n",
+          server.requestBytes(), server.responseBytes(),
+          (server.requestBytes() + server.responseBytes()) / 1024.0 / seconds);
+      if (result.allocatedBytes >= 0) {
+        System.out.printf(Locale.ROOT, "  allocation   %.1f MiB/s, %d B/req (client threads)%n",
+            result.allocatedBytes / 1048576.0 / seconds,
+            result.allocatedBytes / Math.max(1, result.latencies.length));
+      } else {
+        System.out.println("  allocation   unavailable on this JVM");
+      }
+
+      List<String> violations = new ArrayList<>();
+      if (server.requests() != result.latencies.length) {
+        violations.add("server saw " + server.requests() + " requests, client sent "
+            + result.latencies.length);
+      }
+      if (maxP99Ms != null && p99 > maxP99Ms) {
+        violations.add("p99 latency " + p99 + "ms above " + maxP99Ms + "ms");
+      }
+      if (maxErrorRate != null && observedErrorRate > maxErrorRate) {
+        violations.add("error rate " + observedErrorRate + " above " + maxErrorRate);
+      }
+      if (minThroughput != null && throughput < minThroughput) {
+        violations.add("throughput " + throughput + " req/s below " + minThroughput);
+      }
+      for (String violation : violations) {
+        System.err.println("FAILED: " + violation);
+      }
+      if (!violations.isEmpty()) {
+        System.exit(1);
+      }
+    }
+  }
+
+  private static Result run(Translator translator, int requests, int concurrency,
+      String[] languages, String[][] catalogs) throws InterruptedException {
+    com.sun.management.ThreadMXBean threads = threadBean();
+    long[] latencies = new long[requests];
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger failures = new AtomicInteger();
+    AtomicInteger mismatches = new AtomicInteger();
+    long[] allocated = new long[concurrency];
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[concurrency];
+
+    for (int w = 0; w < concurrency; w++) {
+      final int worker = w;
+      workers[w] = new Thread(() -> {
+        long threadId = Thread.currentThread().getId();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        int i;
+        while ((i = next.getAndIncrement()) < requests) {
+          // Each request switches to the next language, mimicking a user cycling the spinner.
+          String language = languages[i % languages.length];
+          String[] texts = catalogs[ThreadLocalRandom.current().nextInt(catalogs.length)];
+          String[] translated = null;
+          long allocatedBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+          long begin = System.nanoTime();
+          try {
+            translated = translator.translate(texts, language);
+          } catch (IOException | JSONException e) {
+            failures.incrementAndGet();
+          }
+          latencies[i] = System.nanoTime() - begin;
+          if (threads != null) {
+            allocated[worker] += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+          }
+
+          // Checked outside the measured window so it adds to neither latency nor allocation.
+          if (translated != null && !matchesEcho(texts, language, translated)) {
+            mismatches.incrementAndGet();
+            failures.incrementAndGet();
+          }
+        }
+      }, "translation-load-" + w);
+      workers[w].start();
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - begin;
+
+    Arrays.sort(latencies);
+    return new Result(latencies, failures.get(), mismatches.get(), elapsed,
+        threads != null ? Arrays.stream(allocated).sum() : -1);
+  }
+
+  /**
+   * The harness client. OkHttp leaves Nagle on, so once a form body spans several segments the
+   * last one waits on the server's delayed ACK (~40ms) and large catalogs look far slower than
+   * they are. Devices talking to the real endpoint are dominated by network latency instead.
+   */
+  private static OkHttpClient newClient() {
+    return new OkHttpClient.Builder().socketFactory(new NoDelaySocketFactory()).build();
+  }
+
+  /** Whether {@code translated} is exactly what {@link MockTranslateServer} echoes for the input. */
+  private static boolean matchesEcho(String[] texts, String language, String[] translated) {
+    if (translated.length != texts.length) {
+      return false;
+    }
+    for (int i = 0; i < texts.length; i++) {
+      if (!("[" + language + "] " + texts[i]).equals(translated[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static com.sun.management.ThreadMXBean threadBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (sunBean.isThreadAllocatedMemorySupported()) {
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+      }
+    }
+    return null;
+  }
+
+  /** Builds {@code size} strings by cycling through {@link Utils#descriptions}. */
+  private static String[] catalog(int size) {
+    String[] texts = new String[size];
+    for (int i = 0; i < size; i++) {
+      texts[i] = Utils.descriptions[i % Utils.descriptions.length];
+    }
+    return texts;
+  }
+
+  private static double percentileMs(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  private static Double gate(Map<String, String> options, String name) {
+    if (!options.containsKey(name)) {
+      return null;
+    }
+    double value = Double.parseDouble(options.get(name));
+    require(value >= 0, name + " must not be negative");
+    return value;
+  }
+
+  private static void require(boolean condition, String message) {
+    if (!condition) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+      }
+      int eq = arg.indexOf('=');
+      String name = arg.substring(2, eq);
+      if (!OPTIONS.contains(name)) {
+        throw new IllegalArgumentException("Unknown option: --" + name);
+      }
+      options.put(name, arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  private static class NoDelaySocketFactory extends SocketFactory {
+    private final SocketFactory delegate = SocketFactory.getDefault();
+
+    @Override
+    public Socket createSocket() throws IOException {
+      return noDelay(delegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      return noDelay(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+        throws IOException {
+      return noDelay(delegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+      return noDelay(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+        int localPort) throws IOException {
+      return noDelay(delegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    private static Socket noDelay(Socket socket) throws IOException {
+      socket.setTcpNoDelay(true);
+      return socket;
+    }
+  }
+
+  private static class Result {
+    final long[] latencies;
+    final int failures;
+    final int mismatches;
+    final long elapsedNanos;
+    final long allocatedBytes;
+
+    Result(long[] latencies, int failures, int mismatches, long elapsedNanos,
+        long allocatedBytes) {
+      this.latencies = latencies;
+      this.failures = failures;
+      this.mismatches = mismatches;
+      this.elapsedNanos = elapsedNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+}
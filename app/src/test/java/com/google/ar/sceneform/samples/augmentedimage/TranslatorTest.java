@@ -0,0 +1,76 @@
+package com.google.ar.sceneform.samples.augmentedimage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TranslatorTest {
+
+  private MockTranslateServer server;
+  private Translator translator;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new MockTranslateServer(1, 0, 0, 0);
+    translator = new Translator(new OkHttpClient(), server.endpoint(), "test-key");
+  }
+
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  @Test
+  public void translatesEveryStringInOrder() throws Exception {
+    String[] texts = {
+        "salt & pepper", "don't", "1 + 1 = 2", "100% sure?",
+        "Za\u017c\u00f3\u0142\u0107 g\u0119\u015bl\u0105", "\u65e5\u672c\u8a9e", ""
+    };
+
+    String[] translated = translator.translate(texts, "pl");
+
+    assertEquals(texts.length, translated.length);
+    for (int i = 0; i < texts.length; i++) {
+      assertEquals("[pl] " + texts[i], translated[i]);
+    }
+  }
+
+  @Test
+  public void sendsLargeCatalogsWithinTheUriLimit() throws Exception {
+    String[] texts = new String[200];
+    for (int i = 0; i < texts.length; i++) {
+      texts[i] = Utils.descriptions[i % Utils.descriptions.length];
+    }
+
+    String[] translated = translator.translate(texts, "da");
+
+    assertEquals(200, translated.length);
+    assertEquals("[da] " + texts[199], translated[199]);
+  }
+
+  @Test
+  public void translatesDescriptions() throws Exception {
+    String[] expected = new String[Utils.descriptions.length];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = "[it] " + Utils.descriptions[i];
+    }
+
+    assertArrayEquals(expected, translator.translate(Utils.descriptions, "it"));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsErrorResponses() throws Exception {
+    server.close();
+    server = new MockTranslateServer(1, 0, 0, 1);
+    translator = new Translator(new OkHttpClient(), server.endpoint(), "test-key");
+
+    translator.translate(Utils.descriptions, "es");
+  }
+}